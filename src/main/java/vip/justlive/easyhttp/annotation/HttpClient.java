@@ -30,4 +30,10 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 public @interface HttpClient {
 
+  /**
+   * 客户端名称，用于绑定easy-http.clients.[name]配置，默认为接口名首字母小写
+   *
+   * @return name
+   */
+  String value() default "";
 }
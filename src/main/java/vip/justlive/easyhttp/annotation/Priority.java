@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2019 justlive1
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software distributed under the License
+ *  is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing permissions and limitations under
+ *  the License.
+ */
+
+package vip.justlive.easyhttp.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 请求优先级，方法上的优先于接口上的，未声明时为NORMAL
+ *
+ * @author wubo
+ */
+@Documented
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Priority {
+
+  /**
+   * 优先级
+   *
+   * @return level
+   */
+  Level value();
+
+  /**
+   * 优先级分类，按声明顺序从高到低
+   */
+  enum Level {
+    /**
+     * 面向用户的交互请求
+     */
+    HIGH,
+    /**
+     * 默认
+     */
+    NORMAL,
+    /**
+     * 后台批量任务，饱和时最先被丢弃
+     */
+    LOW
+  }
+}
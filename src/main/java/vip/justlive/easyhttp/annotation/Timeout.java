@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2019 justlive1
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software distributed under the License
+ *  is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing permissions and limitations under
+ *  the License.
+ */
+
+package vip.justlive.easyhttp.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求超时预算，方法上的优先于接口上的
+ *
+ * @author wubo
+ */
+@Documented
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Timeout {
+
+  /**
+   * 超时时间
+   *
+   * @return timeout
+   */
+  long value();
+
+  /**
+   * 时间单位
+   *
+   * @return unit
+   */
+  TimeUnit unit() default TimeUnit.MILLISECONDS;
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2019 justlive1
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software distributed under the License
+ *  is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing permissions and limitations under
+ *  the License.
+ */
+
+package vip.justlive.easyhttp.autoconfigure;
+
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackages;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ResourceLoaderAware;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.ImportBeanDefinitionRegistrar;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.util.StringUtils;
+import vip.justlive.easyhttp.config.HttpClientProperties;
+import vip.justlive.easyhttp.factory.HttpClientFactoryBean;
+import vip.justlive.easyhttp.schedule.RequestScheduler;
+import vip.justlive.easyhttp.scanner.HttpClientScanner;
+
+/**
+ * spring boot auto configuration
+ * <p>
+ * 未使用@HttpClientScan时自动扫描启动类所在包，并绑定easy-http.*配置
+ *
+ * @author wubo
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties
+public class HttpClientAutoConfiguration {
+  
+  @Bean
+  @ConditionalOnMissingBean
+  @ConfigurationProperties(prefix = HttpClientProperties.PREFIX)
+  public HttpClientProperties httpClientProperties() {
+    return new HttpClientProperties();
+  }
+  
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnClass(name = HttpClientPropertiesRefresher.ENVIRONMENT_CHANGE_EVENT)
+  public HttpClientPropertiesRefresher httpClientPropertiesRefresher(
+      HttpClientProperties properties) {
+    return new HttpClientPropertiesRefresher(properties);
+  }
+  
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = HttpClientProperties.PREFIX + ".scheduler", name = "enabled",
+      havingValue = "true")
+  public RequestScheduler requestScheduler(HttpClientProperties properties) {
+    HttpClientProperties.Scheduler scheduler = properties.getScheduler();
+    return new RequestScheduler(scheduler.getMaxConcurrent(), scheduler.getQueueCapacity(),
+        scheduler.getWeights());
+  }
+  
+  /**
+   * 扫描自动配置包下的@HttpClient
+   */
+  public static class AutoConfiguredHttpClientRegistrar implements BeanFactoryAware,
+      ImportBeanDefinitionRegistrar, ResourceLoaderAware {
+    
+    private static final Logger LOGGER = LoggerFactory
+        .getLogger(AutoConfiguredHttpClientRegistrar.class);
+    
+    private BeanFactory beanFactory;
+    private ResourceLoader resourceLoader;
+    
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+      this.beanFactory = beanFactory;
+    }
+    
+    @Override
+    public void setResourceLoader(ResourceLoader resourceLoader) {
+      this.resourceLoader = resourceLoader;
+    }
+    
+    @Override
+    public void registerBeanDefinitions(AnnotationMetadata metadata,
+        BeanDefinitionRegistry registry) {
+      if (!AutoConfigurationPackages.has(beanFactory)) {
+        LOGGER.warn("could not determine auto-configuration package, httpclient scan disabled");
+        return;
+      }
+      List<String> packages = AutoConfigurationPackages.get(beanFactory);
+      if (LOGGER.isDebugEnabled()) {
+        LOGGER.debug("searching for @HttpClient in '{}'", packages);
+      }
+      HttpClientScanner scanner = new HttpClientScanner(registry);
+      scanner.setResourceLoader(resourceLoader);
+      scanner.scan(StringUtils.toStringArray(packages));
+    }
+  }
+  
+  /**
+   * 没有使用@HttpClientScan时生效
+   */
+  @Configuration(proxyBeanMethods = false)
+  @Import(AutoConfiguredHttpClientRegistrar.class)
+  @ConditionalOnMissingBean(HttpClientFactoryBean.class)
+  public static class HttpClientRegistrarNotFoundConfiguration {
+    
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2019 justlive1
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software distributed under the License
+ *  is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing permissions and limitations under
+ *  the License.
+ */
+
+package vip.justlive.easyhttp.autoconfigure;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import vip.justlive.easyhttp.config.HttpClientProperties;
+
+/**
+ * 配置变更后重新绑定客户端配置
+ * <p>
+ * 收到spring-cloud的EnvironmentChangeEvent时绑定到新的map中再整体替换，配置中删除的客户端随之失效
+ *
+ * @author wubo
+ */
+public class HttpClientPropertiesRefresher implements ApplicationListener<ApplicationEvent>,
+    EnvironmentAware {
+  
+  static final String ENVIRONMENT_CHANGE_EVENT =
+      "org.springframework.cloud.context.environment.EnvironmentChangeEvent";
+  
+  private static final Logger LOGGER = LoggerFactory
+      .getLogger(HttpClientPropertiesRefresher.class);
+  
+  private final HttpClientProperties properties;
+  private Environment environment;
+  
+  public HttpClientPropertiesRefresher(HttpClientProperties properties) {
+    this.properties = properties;
+  }
+  
+  @Override
+  public void setEnvironment(Environment environment) {
+    this.environment = environment;
+  }
+  
+  @Override
+  public void onApplicationEvent(ApplicationEvent event) {
+    if (ENVIRONMENT_CHANGE_EVENT.equals(event.getClass().getName())) {
+      refresh();
+    }
+  }
+  
+  /**
+   * 重新绑定easy-http.clients
+   */
+  public void refresh() {
+    Map<String, HttpClientProperties.Client> clients = Binder.get(environment)
+        .bind(HttpClientProperties.PREFIX + ".clients",
+            Bindable.mapOf(String.class, HttpClientProperties.Client.class))
+        .orElseGet(HashMap::new);
+    properties.setClients(clients);
+    if (LOGGER.isInfoEnabled()) {
+      LOGGER.info("httpclient properties refreshed, clients {}", clients.keySet());
+    }
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2019 justlive1
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software distributed under the License
+ *  is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing permissions and limitations under
+ *  the License.
+ */
+
+package vip.justlive.easyhttp.config;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import vip.justlive.easyhttp.annotation.Priority;
+
+/**
+ * httpclient properties, bind to easy-http.*
+ * <p>
+ * 每次请求时读取，引入spring-cloud-context后收到EnvironmentChangeEvent时重新绑定clients，无需重启即可生效
+ * <p>
+ * clients为只读map，只会整体替换：spring-cloud重新绑定时无法在原map上putAll，会生成新的map再调用setter，
+ * 避免请求线程读取时map被并发修改
+ *
+ * @author wubo
+ */
+@Data
+public class HttpClientProperties {
+  
+  public static final String PREFIX = "easy-http";
+  
+  /**
+   * 客户端配置，key为@HttpClient的名称
+   */
+  private volatile Map<String, Client> clients = Collections.emptyMap();
+  
+  /**
+   * 共享的请求调度配置
+   */
+  private Scheduler scheduler = new Scheduler();
+  
+  /**
+   * 整体替换客户端配置
+   *
+   * @param clients 客户端配置
+   */
+  public void setClients(Map<String, Client> clients) {
+    if (clients == null || clients.isEmpty()) {
+      this.clients = Collections.emptyMap();
+    } else {
+      this.clients = Collections.unmodifiableMap(new HashMap<>(clients));
+    }
+  }
+  
+  /**
+   * 获取客户端配置
+   *
+   * @param name 客户端名称
+   * @return client or null
+   */
+  public Client getClient(String name) {
+    if (name == null) {
+      return null;
+    }
+    return clients.get(name);
+  }
+  
+  /**
+   * 请求调度配置，启用后所有客户端按@Priority共享并发数
+   */
+  @Data
+  public static class Scheduler {
+    
+    /**
+     * 是否启用
+     */
+    private boolean enabled;
+    
+    /**
+     * 最大并发数
+     */
+    private int maxConcurrent = 64;
+    
+    /**
+     * 排队上限，超出时丢弃低优先级请求
+     */
+    private int queueCapacity = 256;
+    
+    /**
+     * 各优先级的权重
+     */
+    private Map<Priority.Level, Integer> weights = new HashMap<>(4);
+  }
+  
+  /**
+   * 单个客户端配置
+   */
+  @Data
+  public static class Client {
+    
+    /**
+     * 基础地址，覆盖接口上@RequestMapping的值
+     */
+    private String url;
+    
+    /**
+     * 连接超时
+     */
+    private Duration connectTimeout;
+    
+    /**
+     * 读取超时
+     */
+    private Duration readTimeout;
+    
+    /**
+     * 附加请求头
+     */
+    private Map<String, String> headers = new HashMap<>(2);
+    
+    /**
+     * 最大并发数，超出时直接拒绝，小于等于0时不限制
+     */
+    private int maxConcurrent;
+    
+    /**
+     * 解析响应时复用线程内的缓冲区，不再生成整个响应体的字符串
+     */
+    private boolean pooledBuffers;
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2019 justlive1
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software distributed under the License
+ *  is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing permissions and limitations under
+ *  the License.
+ */
+
+package vip.justlive.easyhttp.factory;
+
+import java.io.Closeable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 单个客户端的并发限制，超出时直接拒绝
+ * <p>
+ * 上限随配置变化时换用新的信号量，已在执行的请求仍归还到旧的信号量
+ *
+ * @author wubo
+ */
+class ConcurrencyLimiter {
+  
+  private final String name;
+  private volatile Limit limit;
+  
+  ConcurrencyLimiter(String name) {
+    this.name = name;
+  }
+  
+  /**
+   * 获取许可
+   *
+   * @param maxConcurrent 当前配置的上限，小于等于0时不限制
+   * @return permit or null
+   */
+  Closeable acquire(int maxConcurrent) {
+    if (maxConcurrent <= 0) {
+      return null;
+    }
+    Limit current = limit;
+    if (current == null || current.max != maxConcurrent) {
+      synchronized (this) {
+        current = limit;
+        if (current == null || current.max != maxConcurrent) {
+          current = new Limit(maxConcurrent);
+          limit = current;
+        }
+      }
+    }
+    Semaphore semaphore = current.semaphore;
+    if (!semaphore.tryAcquire()) {
+      throw new RejectedExecutionException(
+          String.format("httpclient '%s' reached max concurrent %s", name, maxConcurrent));
+    }
+    return semaphore::release;
+  }
+  
+  private static class Limit {
+    
+    private final int max;
+    private final Semaphore semaphore;
+    
+    Limit(int max) {
+      this.max = max;
+      this.semaphore = new Semaphore(max);
+    }
+  }
+}
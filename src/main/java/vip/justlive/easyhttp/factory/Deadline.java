@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2019 justlive1
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software distributed under the License
+ *  is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing permissions and limitations under
+ *  the License.
+ */
+
+package vip.justlive.easyhttp.factory;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.MDC;
+
+/**
+ * 请求截止时间
+ * <p>
+ * 上游的截止时间通过MDC中的{@link #DEADLINE}（毫秒时间戳）传入，剩余预算通过{@link #REQUEST_TIMEOUT}请求头传给下游
+ * <p>
+ * 内部使用System.nanoTime计时，不受系统时间调整的影响；只在创建和写入MDC时与毫秒时间戳相互转换
+ *
+ * @author wubo
+ */
+public final class Deadline {
+  
+  public static final String DEADLINE = "deadline";
+  public static final String REQUEST_TIMEOUT = "request-timeout";
+  
+  private final long nanos;
+  
+  private Deadline(long nanos) {
+    this.nanos = nanos;
+  }
+  
+  /**
+   * 指定时间点的截止时间
+   *
+   * @param epochMillis 毫秒时间戳
+   * @return deadline
+   */
+  public static Deadline at(long epochMillis) {
+    return after(epochMillis - System.currentTimeMillis());
+  }
+  
+  /**
+   * 从当前开始计算的截止时间
+   *
+   * @param timeout 超时
+   * @return deadline
+   */
+  public static Deadline after(Duration timeout) {
+    return after(timeout.toMillis());
+  }
+  
+  /**
+   * 从当前开始计算的截止时间
+   *
+   * @param timeoutMillis 超时毫秒
+   * @return deadline
+   */
+  public static Deadline after(long timeoutMillis) {
+    return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+  }
+  
+  /**
+   * 当前上下文中的截止时间
+   *
+   * @return deadline or null
+   */
+  public static Deadline current() {
+    String value = MDC.get(DEADLINE);
+    if (value == null) {
+      return null;
+    }
+    try {
+      return at(Long.parseLong(value));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+  
+  /**
+   * 将截止时间绑定到当前上下文，通常在收到上游请求时根据{@link #REQUEST_TIMEOUT}请求头调用
+   * <p>
+   * 请求结束后必须关闭返回值以恢复之前的值，否则线程池中的线程会沿用已过期的截止时间
+   *
+   * @param deadline 截止时间
+   * @return binding
+   */
+  public static Binding bind(Deadline deadline) {
+    Binding binding = new Binding(MDC.get(DEADLINE));
+    put(deadline == null ? null : Long.toString(deadline.getEpochMillis()));
+    return binding;
+  }
+  
+  private static void put(String value) {
+    if (value == null) {
+      MDC.remove(DEADLINE);
+    } else {
+      MDC.put(DEADLINE, value);
+    }
+  }
+  
+  /**
+   * 取较早的截止时间
+   *
+   * @param a deadline
+   * @param b deadline
+   * @return earlier one
+   */
+  public static Deadline earliest(Deadline a, Deadline b) {
+    if (a == null) {
+      return b;
+    }
+    if (b == null) {
+      return a;
+    }
+    return a.nanos - b.nanos <= 0 ? a : b;
+  }
+  
+  /**
+   * 剩余毫秒数，已过期返回0
+   *
+   * @return remaining millis
+   */
+  public long remainingMillis() {
+    return Math.max(0, TimeUnit.NANOSECONDS.toMillis(nanos - System.nanoTime()));
+  }
+  
+  public boolean isExpired() {
+    return nanos - System.nanoTime() <= 0;
+  }
+  
+  /**
+   * 对应的毫秒时间戳，按当前系统时间换算
+   *
+   * @return epoch millis
+   */
+  public long getEpochMillis() {
+    return System.currentTimeMillis() + TimeUnit.NANOSECONDS.toMillis(nanos - System.nanoTime());
+  }
+  
+  @Override
+  public String toString() {
+    return "Deadline(" + getEpochMillis() + ")";
+  }
+  
+  /**
+   * 上下文绑定，关闭时恢复绑定前的值
+   */
+  public static final class Binding implements Closeable {
+    
+    private final String previous;
+    private boolean closed;
+    
+    private Binding(String previous) {
+      this.previous = previous;
+    }
+    
+    @Override
+    public void close() {
+      if (!closed) {
+        closed = true;
+        put(previous);
+      }
+    }
+  }
+}
@@ -21,6 +21,8 @@ import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.EnvironmentAware;
 import org.springframework.core.env.Environment;
+import vip.justlive.easyhttp.config.HttpClientProperties;
+import vip.justlive.easyhttp.schedule.RequestScheduler;
 import vip.justlive.oxygen.core.util.net.http.HttpRequestExecution;
 import vip.justlive.oxygen.core.util.net.http.HttpRequestInterceptor;
 
@@ -36,6 +38,8 @@ public class HttpClientFactoryBean<T> implements FactoryBean<T>, EnvironmentAwar
   private Environment environment;
   private HttpRequestExecution requestExecution;
   private List<HttpRequestInterceptor> interceptors;
+  private HttpClientProperties properties;
+  private RequestScheduler scheduler;
   
   public HttpClientFactoryBean(Class<T> clientInterface) {
     this.clientInterface = clientInterface;
@@ -54,11 +58,22 @@ public class HttpClientFactoryBean<T> implements FactoryBean<T>, EnvironmentAwar
     }
   }
   
+  @Autowired(required = false)
+  public void setProperties(HttpClientProperties properties) {
+    this.properties = properties;
+  }
+  
+  @Autowired(required = false)
+  public void setScheduler(RequestScheduler scheduler) {
+    this.scheduler = scheduler;
+  }
+  
   @Override
   public T getObject() {
     return clientInterface.cast(Proxy
         .newProxyInstance(clientInterface.getClassLoader(), new Class[]{clientInterface},
-            new HttpClientProxy<>(clientInterface, environment, requestExecution, interceptors)));
+            new HttpClientProxy<>(clientInterface, environment, requestExecution, interceptors,
+                properties, scheduler)));
   }
   
   @Override
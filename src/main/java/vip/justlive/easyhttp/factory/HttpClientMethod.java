@@ -15,11 +15,15 @@
 package vip.justlive.easyhttp.factory;
 
 import com.alibaba.fastjson.JSON;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.lang.reflect.Type;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -41,6 +45,10 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.multipart.MultipartFile;
+import vip.justlive.easyhttp.annotation.Priority;
+import vip.justlive.easyhttp.annotation.Timeout;
+import vip.justlive.easyhttp.config.HttpClientProperties;
+import vip.justlive.easyhttp.schedule.RequestScheduler;
 import vip.justlive.oxygen.core.exception.Exceptions;
 import vip.justlive.oxygen.core.util.base.HttpHeaders;
 import vip.justlive.oxygen.core.util.base.MoreObjects;
@@ -65,28 +73,45 @@ public class HttpClientMethod {
   private static final Pattern REGEX_PATH_GROUP = Pattern.compile("\\{(\\w+)[}]");
   
   private final String root;
+  private final String name;
+  private final Class<?> clientInterface;
   private final Method method;
   private final Environment environment;
   private final HttpRequestExecution requestExecution;
   private final List<HttpRequestInterceptor> interceptors;
+  private final HttpClientProperties properties;
+  private final RequestScheduler scheduler;
+  private final ConcurrencyLimiter limiter;
   private String url;
+  private String path;
   private Type responseType;
+  private ResponseDecoder decoder;
   private RequestMethod httpMethod = RequestMethod.GET;
   private final Map<String, Integer> headers = new HashMap<>(2);
   private final Map<String, Integer> query = new HashMap<>(2);
   private boolean multipart = false;
   private int bodyIndex = -1;
+  private int deadlineIndex = -1;
+  private long timeout;
+  private Priority.Level priority = Priority.Level.NORMAL;
   private boolean isHttpclient;
   private Map<String, Integer> pathVars;
   private final Map<String, String> baseHeaders = new HashMap<>(2);
   
-  HttpClientMethod(String root, Method method, Environment environment,
-      HttpRequestExecution requestExecution, List<HttpRequestInterceptor> interceptors) {
+  HttpClientMethod(String root, String name, Class<?> clientInterface, Method method,
+      Environment environment, HttpRequestExecution requestExecution,
+      List<HttpRequestInterceptor> interceptors, HttpClientProperties properties,
+      RequestScheduler scheduler, ConcurrencyLimiter limiter) {
     this.root = root;
+    this.name = name;
+    this.clientInterface = clientInterface;
     this.method = method;
     this.environment = environment;
     this.requestExecution = requestExecution;
     this.interceptors = interceptors;
+    this.properties = properties;
+    this.scheduler = scheduler;
+    this.limiter = limiter;
     parse();
   }
   
@@ -95,15 +120,35 @@ public class HttpClientMethod {
       return null;
     }
     
-    try (FileCleaner cleaner = new FileCleaner();
-        HttpResponse response = buildRequest(cleaner, args).execute()) {
+    Deadline deadline = resolveDeadline(args);
+    checkDeadline(deadline, "before request");
+    
+    HttpClientProperties.Client client = properties == null ? null : properties.getClient(name);
+    try (Closeable limit = limiter.acquire(client == null ? 0 : client.getMaxConcurrent());
+        RequestScheduler.Permit permit = acquire(deadline);
+        FileCleaner cleaner = new FileCleaner();
+        HttpResponse response = buildRequest(cleaner, client, deadline, args).execute()) {
+      checkDeadline(deadline, "after response");
       if (responseType == Void.TYPE) {
         return null;
       }
+      if (client != null && client.isPooledBuffers() && responseType != String.class) {
+        Object value = decoder.decode(response.getBody(), response.getCharset());
+        checkDeadline(deadline, "after reading body");
+        return value;
+      }
+      String body = response.bodyAsString();
+      checkDeadline(deadline, "after reading body");
       if (responseType == String.class) {
-        return response.bodyAsString();
+        return body;
       }
-      return JSON.parseObject(response.bodyAsString(), responseType);
+      return decoder.decode(body);
+    }
+  }
+  
+  private void checkDeadline(Deadline deadline, String phase) throws SocketTimeoutException {
+    if (deadline != null && deadline.isExpired()) {
+      throw new SocketTimeoutException("deadline exceeded " + phase + " " + method);
     }
   }
   
@@ -113,11 +158,15 @@ public class HttpClientMethod {
       if (url == null) {
         return;
       }
-      if (StringUtils.hasText(root)) {
+      path = url;
+      if (StringUtils.hasText(root) && !isAbsolute(path)) {
         url = concatUrl(root, url);
       }
       this.isHttpclient = true;
-      parsePathVars();
+      url = parsePathVars(url);
+      path = parsePathVars(path);
+      parseTimeout();
+      parsePriority();
       parseParam();
     }
   }
@@ -126,17 +175,21 @@ public class HttpClientMethod {
     return String.format(" %s ", name);
   }
   
-  private void parsePathVars() {
-    Matcher matcher = REGEX_PATH_GROUP.matcher(url);
+  private String parsePathVars(String value) {
+    Matcher matcher = REGEX_PATH_GROUP.matcher(value);
     int start = 0;
+    String result = value;
     if (matcher.find(start)) {
-      pathVars = new HashMap<>(2);
+      if (pathVars == null) {
+        pathVars = new HashMap<>(2);
+      }
       do {
-        String name = matcher.group(1);
-        url = url.replace(matcher.group(0), pathVarSeat(name));
+        String var = matcher.group(1);
+        result = result.replace(matcher.group(0), pathVarSeat(var));
         start = matcher.end();
       } while (matcher.find(start));
     }
+    return result;
   }
   
   private boolean parseMapping() {
@@ -223,8 +276,36 @@ public class HttpClientMethod {
     }
   }
   
+  private void parseTimeout() {
+    Timeout ann = findAnnotation(Timeout.class);
+    if (ann != null) {
+      timeout = ann.unit().toMillis(ann.value());
+    }
+  }
+  
+  private void parsePriority() {
+    Priority ann = findAnnotation(Priority.class);
+    if (ann != null) {
+      priority = ann.value();
+    }
+  }
+  
+  private <A extends Annotation> A findAnnotation(Class<A> type) {
+    A ann = method.getAnnotation(type);
+    if (ann == null) {
+      ann = clientInterface.getAnnotation(type);
+    }
+    if (ann == null) {
+      ann = method.getDeclaringClass().getAnnotation(type);
+    }
+    return ann;
+  }
+  
   private void parseParam() {
     responseType = method.getGenericReturnType();
+    if (responseType != Void.TYPE && responseType != String.class) {
+      decoder = new ResponseDecoder(responseType);
+    }
     Parameter[] parameters = method.getParameters();
     for (int index = 0, len = parameters.length; index < len; index++) {
       handlerParamAnnotations(parameters[index], index);
@@ -255,14 +336,54 @@ public class HttpClientMethod {
     if (requestPart != null) {
       multipart = true;
       query.put(Strings.firstNonNull(requestPart.value(), parameter.getName()), index);
+      return;
+    }
+    if (parameter.getType() == Duration.class || parameter.getType() == Deadline.class) {
+      deadlineIndex = index;
+    }
+  }
+  
+  private Deadline resolveDeadline(Object... args) {
+    Deadline deadline = Deadline.current();
+    if (timeout > 0) {
+      deadline = Deadline.earliest(deadline, Deadline.after(timeout));
+    }
+    if (deadlineIndex > -1) {
+      Object value = args[deadlineIndex];
+      if (value instanceof Duration) {
+        deadline = Deadline.earliest(deadline, Deadline.after((Duration) value));
+      } else if (value instanceof Deadline) {
+        deadline = Deadline.earliest(deadline, (Deadline) value);
+      }
     }
+    return deadline;
   }
   
-  private HttpRequest buildRequest(FileCleaner cleaner, Object... args) {
-    HttpRequest request = HttpRequest.url(buildRequestUrl(args))
+  private RequestScheduler.Permit acquire(Deadline deadline) throws IOException {
+    if (scheduler == null) {
+      return null;
+    }
+    RequestScheduler.Permit permit = scheduler.acquire(priority, deadline);
+    try {
+      // 排队期间预算可能刚好耗尽，此时不再发起请求
+      checkDeadline(deadline, "after queueing");
+    } catch (SocketTimeoutException e) {
+      permit.close();
+      throw e;
+    }
+    return permit;
+  }
+  
+  private HttpRequest buildRequest(FileCleaner cleaner, HttpClientProperties.Client client,
+      Deadline deadline, Object... args) {
+    HttpRequest request = HttpRequest.url(buildRequestUrl(client, args))
         .method(HttpMethod.valueOf(httpMethod.name())).httpRequestExecution(requestExecution)
         .interceptors(interceptors);
     
+    applyTimeout(client, deadline, request);
+    if (client != null && client.getHeaders() != null) {
+      client.getHeaders().forEach(request::addHeader);
+    }
     baseHeaders.forEach(request::addHeader);
     headers.forEach((k, v) -> request.addHeader(k, MoreObjects.safeToString(args[v])));
     String traceId = MDC.get(TRACE_ID);
@@ -293,8 +414,40 @@ public class HttpClientMethod {
     return request;
   }
   
-  private String buildRequestUrl(Object... args) {
+  private void applyTimeout(HttpClientProperties.Client client, Deadline deadline,
+      HttpRequest request) {
+    int connectTimeout = 0;
+    int readTimeout = 0;
+    if (client != null) {
+      connectTimeout = toMillis(client.getConnectTimeout());
+      readTimeout = toMillis(client.getReadTimeout());
+    }
+    if (deadline != null) {
+      int remaining = (int) Math.min(Integer.MAX_VALUE, Math.max(1, deadline.remainingMillis()));
+      connectTimeout = connectTimeout > 0 ? Math.min(connectTimeout, remaining) : remaining;
+      readTimeout = readTimeout > 0 ? Math.min(readTimeout, remaining) : remaining;
+      request.addHeader(Deadline.REQUEST_TIMEOUT, Integer.toString(remaining));
+    }
+    if (connectTimeout > 0) {
+      request.connectTimeout(connectTimeout);
+    }
+    if (readTimeout > 0) {
+      request.readTimeout(readTimeout);
+    }
+  }
+  
+  private static int toMillis(Duration duration) {
+    if (duration == null) {
+      return 0;
+    }
+    return (int) Math.min(Integer.MAX_VALUE, duration.toMillis());
+  }
+  
+  private String buildRequestUrl(HttpClientProperties.Client client, Object... args) {
     String realUrl = url;
+    if (client != null && StringUtils.hasText(client.getUrl()) && !isAbsolute(path)) {
+      realUrl = concatUrl(client.getUrl(), path);
+    }
     if (pathVars != null) {
       for (Map.Entry<String, Integer> entry : pathVars.entrySet()) {
         realUrl = realUrl
@@ -341,6 +494,10 @@ public class HttpClientMethod {
     }
   }
   
+  private static boolean isAbsolute(String path) {
+    return path.contains("://");
+  }
+  
   private static String concatUrl(String parent, String child) {
     StringBuilder sb = new StringBuilder();
     boolean endWithSlash = false;
@@ -24,7 +24,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.RequestMapping;
+import vip.justlive.easyhttp.annotation.HttpClient;
+import vip.justlive.easyhttp.config.HttpClientProperties;
+import vip.justlive.easyhttp.schedule.RequestScheduler;
 import vip.justlive.oxygen.core.util.net.http.HttpRequestExecution;
 import vip.justlive.oxygen.core.util.net.http.HttpRequestInterceptor;
 
@@ -40,15 +44,22 @@ public class HttpClientProxy<T> implements InvocationHandler {
   private final Environment environment;
   private final HttpRequestExecution requestExecution;
   private final List<HttpRequestInterceptor> interceptors;
+  private final HttpClientProperties properties;
+  private final RequestScheduler scheduler;
   private final Map<Method, HttpClientMethod> cache = new ConcurrentHashMap<>(4);
   private String root;
+  private String name;
+  private ConcurrencyLimiter limiter;
   
   HttpClientProxy(Class<T> clientInterface, Environment environment,
-      HttpRequestExecution requestExecution, List<HttpRequestInterceptor> interceptors) {
+      HttpRequestExecution requestExecution, List<HttpRequestInterceptor> interceptors,
+      HttpClientProperties properties, RequestScheduler scheduler) {
     this.clientInterface = clientInterface;
     this.environment = environment;
     this.requestExecution = requestExecution;
     this.interceptors = interceptors;
+    this.properties = properties;
+    this.scheduler = scheduler;
     this.init();
   }
   
@@ -57,6 +68,13 @@ public class HttpClientProxy<T> implements InvocationHandler {
     if (req != null && req.value().length > 0) {
       root = this.environment.resolvePlaceholders(req.value()[0]);
     }
+    HttpClient client = this.clientInterface.getAnnotation(HttpClient.class);
+    if (client != null && StringUtils.hasText(client.value())) {
+      name = client.value();
+    } else {
+      name = StringUtils.uncapitalize(this.clientInterface.getSimpleName());
+    }
+    limiter = new ConcurrencyLimiter(name);
   }
   
   @Override
@@ -71,7 +89,8 @@ public class HttpClientProxy<T> implements InvocationHandler {
     }
     
     return cache.computeIfAbsent(method,
-            k -> new HttpClientMethod(root, method, environment, requestExecution, interceptors))
+            k -> new HttpClientMethod(root, name, clientInterface, method, environment,
+                requestExecution, interceptors, properties, scheduler, limiter))
         .execute(args);
   }
   
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2019 justlive1
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software distributed under the License
+ *  is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing permissions and limitations under
+ *  the License.
+ */
+
+package vip.justlive.easyhttp.factory;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONException;
+import com.alibaba.fastjson.parser.DefaultJSONParser;
+import com.alibaba.fastjson.parser.JSONReaderScanner;
+import com.alibaba.fastjson.parser.JSONToken;
+import com.alibaba.fastjson.parser.ParserConfig;
+import com.alibaba.fastjson.parser.deserializer.ObjectDeserializer;
+import com.alibaba.fastjson.util.TypeUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 响应解析器，首次解析时确定反序列化器并缓存，避免每次请求都通过全局配置查找
+ * <p>
+ * 缓存后通过ParserConfig.putDeserializer注册的反序列化器对该方法不再生效，需要在首次请求前注册
+ * <p>
+ * 开启缓冲区复用时，响应体读入线程内的byte[]和char[]，再由JSONReaderScanner分段扫描，不再生成整个响应体的字符串；
+ * 字段名、字符串值和结果对象仍会分配
+ *
+ * @author wubo
+ */
+class ResponseDecoder {
+  
+  private static final int INITIAL_BUFFER_SIZE = 4 * 1024;
+  private static final int MAX_POOLED_BUFFER_SIZE = 256 * 1024;
+  private static final ThreadLocal<byte[]> BYTES = new ThreadLocal<>();
+  private static final ThreadLocal<char[]> CHARS = new ThreadLocal<>();
+  private static final ThreadLocal<CharsetDecoder> UTF8_DECODER = ThreadLocal
+      .withInitial(() -> newDecoder(StandardCharsets.UTF_8));
+  
+  private final Type type;
+  private final ParserConfig config;
+  private final boolean array;
+  private volatile ObjectDeserializer deserializer;
+  
+  ResponseDecoder(Type type) {
+    this.type = type;
+    this.config = ParserConfig.getGlobalInstance();
+    // 字符串形式的数组需要DefaultJSONParser特殊处理
+    this.array = type == byte[].class || type == char[].class;
+  }
+  
+  Object decode(String text) {
+    if (text == null || text.isEmpty()) {
+      return null;
+    }
+    return decode(new DefaultJSONParser(text, config, JSON.DEFAULT_PARSER_FEATURE));
+  }
+  
+  Object decode(InputStream in, Charset charset) throws IOException {
+    byte[] bytes = borrow(BYTES.get(), INITIAL_BUFFER_SIZE);
+    int len = 0;
+    int n;
+    while ((n = in.read(bytes, len, bytes.length - len)) != -1) {
+      len += n;
+      if (len == bytes.length) {
+        byte[] grown = new byte[bytes.length << 1];
+        System.arraycopy(bytes, 0, grown, 0, len);
+        bytes = grown;
+      }
+    }
+    if (len == 0) {
+      release(BYTES, bytes, bytes.length);
+      return null;
+    }
+    
+    CharsetDecoder decoder = charset == null || StandardCharsets.UTF_8.equals(charset)
+        ? UTF8_DECODER.get() : newDecoder(charset);
+    char[] chars = borrow(CHARS.get(), (int) (len * (double) decoder.maxCharsPerByte()));
+    CharBuffer out = CharBuffer.wrap(chars);
+    decoder.reset();
+    try {
+      CoderResult cr = decoder.decode(ByteBuffer.wrap(bytes, 0, len), out, true);
+      if (!cr.isUnderflow()) {
+        cr.throwException();
+      }
+      cr = decoder.flush(out);
+      if (!cr.isUnderflow()) {
+        cr.throwException();
+      }
+      return decode(new DefaultJSONParser(
+          new JSONReaderScanner(chars, out.position(), JSON.DEFAULT_PARSER_FEATURE), config));
+    } catch (CharacterCodingException e) {
+      throw new JSONException(e.getMessage(), e);
+    } finally {
+      release(BYTES, bytes, bytes.length);
+      release(CHARS, chars, chars.length);
+    }
+  }
+  
+  private Object decode(DefaultJSONParser parser) {
+    try {
+      Object value;
+      if (array) {
+        value = parser.parseObject(type, null);
+      } else if (parser.lexer.token() == JSONToken.NULL) {
+        parser.lexer.nextToken();
+        value = TypeUtils.optionalEmpty(type);
+      } else {
+        value = deserializer().deserialze(parser, type, null);
+      }
+      parser.handleResovleTask(value);
+      return value;
+    } catch (JSONException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new JSONException(e.getMessage(), e);
+    } finally {
+      parser.close();
+    }
+  }
+  
+  private ObjectDeserializer deserializer() {
+    ObjectDeserializer value = deserializer;
+    if (value == null) {
+      value = config.getDeserializer(type);
+      deserializer = value;
+    }
+    return value;
+  }
+  
+  private static byte[] borrow(byte[] pooled, int size) {
+    if (pooled != null && pooled.length >= size) {
+      return pooled;
+    }
+    return new byte[size];
+  }
+  
+  private static char[] borrow(char[] pooled, int size) {
+    if (pooled != null && pooled.length >= size) {
+      return pooled;
+    }
+    return new char[size];
+  }
+  
+  private static <T> void release(ThreadLocal<T> pool, T buffer, int size) {
+    if (size <= MAX_POOLED_BUFFER_SIZE && buffer != pool.get()) {
+      pool.set(buffer);
+    }
+  }
+  
+  private static CharsetDecoder newDecoder(Charset charset) {
+    return charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2019 justlive1
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software distributed under the License
+ *  is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing permissions and limitations under
+ *  the License.
+ */
+
+package vip.justlive.easyhttp.mock;
+
+import java.util.Random;
+
+/**
+ * 模拟响应延迟分布
+ *
+ * @author wubo
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+  
+  /**
+   * 下一个延迟
+   *
+   * @param random 随机数
+   * @return 延迟毫秒
+   */
+  long nextMillis(Random random);
+  
+  /**
+   * 无延迟
+   *
+   * @return distribution
+   */
+  static LatencyDistribution none() {
+    return random -> 0;
+  }
+  
+  /**
+   * 固定延迟
+   *
+   * @param millis 毫秒
+   * @return distribution
+   */
+  static LatencyDistribution fixed(long millis) {
+    return random -> millis;
+  }
+  
+  /**
+   * 均匀分布
+   *
+   * @param minMillis 最小毫秒
+   * @param maxMillis 最大毫秒
+   * @return distribution
+   */
+  static LatencyDistribution uniform(long minMillis, long maxMillis) {
+    return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+  }
+  
+  /**
+   * 对数正态分布，较贴近真实服务的长尾延迟
+   *
+   * @param medianMillis 中位数毫秒
+   * @param sigma 标准差，越大尾部越长
+   * @return distribution
+   */
+  static LatencyDistribution logNormal(long medianMillis, double sigma) {
+    return random -> (long) (medianMillis * Math.exp(sigma * random.nextGaussian()));
+  }
+}
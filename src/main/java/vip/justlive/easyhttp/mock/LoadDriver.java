@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2019 justlive1
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software distributed under the License
+ *  is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing permissions and limitations under
+ *  the License.
+ */
+
+package vip.justlive.easyhttp.mock;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StreamUtils;
+
+/**
+ * 压测驱动，按顺序循环回放通过@HttpClient代理发起的调用，并统计延迟分布
+ * <p>
+ * 配合{@link MockHttpRequestExecution}可在无下游服务时验证客户端配置、连接数和并发限制
+ * <p>
+ * 默认为闭环模式，每个线程上一个调用结束后立即发起下一个；设置{@link #rate(double)}后为开环模式，
+ * 按目标速率发起调用，线程阻塞期间错过的调用通过recordValueWithExpectedInterval补记，避免协同遗漏低估尾部延迟
+ *
+ * @author wubo
+ */
+public class LoadDriver {
+  
+  private static final Logger LOGGER = LoggerFactory.getLogger(LoadDriver.class);
+  private static final int HISTOGRAM_PRECISION = 3;
+  private static final double NANOS_PER_SECOND = 1e9;
+  
+  private final List<Callable<?>> calls = new ArrayList<>();
+  private int threads = 1;
+  private long requests = 1000;
+  private long warmup;
+  private Duration duration;
+  private double rate;
+  
+  /**
+   * 增加一个调用，通常为对代理方法的调用
+   *
+   * @param call 调用
+   * @return this
+   */
+  public LoadDriver call(Callable<?> call) {
+    calls.add(call);
+    return this;
+  }
+  
+  /**
+   * 增加录制的调用序列
+   *
+   * @param recorded 调用
+   * @return this
+   */
+  public LoadDriver calls(List<? extends Callable<?>> recorded) {
+    calls.addAll(recorded);
+    return this;
+  }
+  
+  /**
+   * 加载录制的调用并通过代理回放
+   * <p>
+   * 录制文件为json数组，每条包含方法名method和参数数组args，参数按方法的参数类型转换
+   *
+   * @param clientInterface 接口
+   * @param proxy 代理
+   * @param in 录制文件
+   * @param <T> 泛型
+   * @return this
+   * @throws IOException io异常
+   */
+  public <T> LoadDriver replay(Class<T> clientInterface, T proxy, InputStream in)
+      throws IOException {
+    String text = StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+    for (Object item : JSON.parseArray(text)) {
+      JSONObject recorded = (JSONObject) item;
+      JSONArray values = recorded.getJSONArray("args");
+      int size = values == null ? 0 : values.size();
+      Method method = findMethod(clientInterface, recorded.getString("method"), size);
+      Type[] types = method.getGenericParameterTypes();
+      Object[] args = new Object[size];
+      for (int i = 0; i < size; i++) {
+        args[i] = values.getObject(i, types[i]);
+      }
+      calls.add(() -> method.invoke(proxy, args));
+    }
+    return this;
+  }
+  
+  public LoadDriver threads(int threads) {
+    this.threads = threads;
+    return this;
+  }
+  
+  /**
+   * 统计的请求数，未设置持续时间时生效
+   *
+   * @param requests 请求数
+   * @return this
+   */
+  public LoadDriver requests(long requests) {
+    this.requests = requests;
+    return this;
+  }
+  
+  /**
+   * 预热请求数，不计入统计
+   *
+   * @param warmup 请求数
+   * @return this
+   */
+  public LoadDriver warmup(long warmup) {
+    this.warmup = warmup;
+    return this;
+  }
+  
+  /**
+   * 持续时间，包含预热，设置后忽略请求数
+   *
+   * @param duration 持续时间
+   * @return this
+   */
+  public LoadDriver duration(Duration duration) {
+    this.duration = duration;
+    return this;
+  }
+  
+  /**
+   * 目标速率，所有线程合计每秒发起的调用数，小于等于0时为闭环模式
+   * <p>
+   * 每个线程按threads/rate的间隔发起调用，线程数需要大于速率与预期延迟的乘积
+   *
+   * @param rate 每秒调用数
+   * @return this
+   */
+  public LoadDriver rate(double rate) {
+    this.rate = rate;
+    return this;
+  }
+  
+  /**
+   * 执行压测
+   *
+   * @return report
+   * @throws InterruptedException 中断
+   */
+  public LoadReport run() throws InterruptedException {
+    if (calls.isEmpty()) {
+      throw new IllegalStateException("no call to replay");
+    }
+    Recorder recorder = new Recorder(HISTOGRAM_PRECISION);
+    AtomicLong sequence = new AtomicLong();
+    AtomicLong completed = new AtomicLong();
+    AtomicLong errors = new AtomicLong();
+    AtomicLong measureStart = new AtomicLong();
+    CountDownLatch latch = new CountDownLatch(threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    long start = System.nanoTime();
+    long end = duration == null ? Long.MAX_VALUE : start + duration.toNanos();
+    long total = duration == null ? warmup + requests : Long.MAX_VALUE;
+    long interval = rate > 0 ? (long) (threads * NANOS_PER_SECOND / rate) : 0;
+    try {
+      for (int i = 0; i < threads; i++) {
+        // 开环模式下各线程错开发起，避免同时到达
+        long firstSlot = start + interval * i / threads;
+        executor.execute(() -> {
+          try {
+            replay(recorder, sequence, completed, errors, measureStart, end, total, firstSlot,
+                interval);
+          } finally {
+            latch.countDown();
+          }
+        });
+      }
+      latch.await();
+    } finally {
+      executor.shutdownNow();
+      executor.awaitTermination(1, TimeUnit.SECONDS);
+    }
+    Histogram histogram = recorder.getIntervalHistogram();
+    long measured = measureStart.get();
+    Duration elapsed = measured == 0 ? Duration.ZERO
+        : Duration.ofNanos(System.nanoTime() - measured);
+    LoadReport report = new LoadReport(histogram, completed.get(), errors.get(), elapsed);
+    if (LOGGER.isInfoEnabled()) {
+      LOGGER.info("load finished {}", report);
+    }
+    return report;
+  }
+  
+  private void replay(Recorder recorder, AtomicLong sequence, AtomicLong completed,
+      AtomicLong errors, AtomicLong measureStart, long end, long total, long firstSlot,
+      long interval) {
+    long slot = firstSlot;
+    long index;
+    while ((index = sequence.getAndIncrement()) < total && System.nanoTime() < end
+        && !Thread.currentThread().isInterrupted()) {
+      if (interval > 0) {
+        slot = await(slot, interval);
+        if (slot >= end || Thread.currentThread().isInterrupted()) {
+          return;
+        }
+      }
+      Callable<?> call = calls.get((int) (index % calls.size()));
+      long begin = System.nanoTime();
+      if (index == warmup) {
+        // 吞吐量从第一个统计的请求开始计时
+        measureStart.set(begin);
+      }
+      try {
+        call.call();
+      } catch (Exception e) {
+        if (index >= warmup) {
+          errors.incrementAndGet();
+        }
+        if (LOGGER.isDebugEnabled()) {
+          LOGGER.debug("replay call failed", e);
+        }
+        continue;
+      } finally {
+        slot += interval;
+      }
+      if (index >= warmup) {
+        completed.incrementAndGet();
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin);
+        if (interval > 0) {
+          recorder.recordValueWithExpectedInterval(micros,
+              TimeUnit.NANOSECONDS.toMicros(interval));
+        } else {
+          recorder.recordValue(micros);
+        }
+      }
+    }
+  }
+  
+  /**
+   * 等待到计划的发起时间；已经落后时跳过错过的时间点，错过的调用由recordValueWithExpectedInterval补记
+   *
+   * @param slot 计划的发起时间
+   * @param interval 间隔
+   * @return 本次调用实际使用的时间点
+   */
+  private static long await(long slot, long interval) {
+    long now = System.nanoTime();
+    if (now - slot >= interval) {
+      return slot + (now - slot) / interval * interval;
+    }
+    while (now < slot && !Thread.currentThread().isInterrupted()) {
+      LockSupport.parkNanos(slot - now);
+      now = System.nanoTime();
+    }
+    return slot;
+  }
+  
+  private static Method findMethod(Class<?> clientInterface, String name, int paramCount) {
+    for (Method method : clientInterface.getMethods()) {
+      if (method.getName().equals(name) && method.getParameterCount() == paramCount) {
+        return method;
+      }
+    }
+    throw new IllegalArgumentException(
+        String.format("no method %s with %s parameters in %s", name, paramCount,
+            clientInterface.getName()));
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2019 justlive1
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software distributed under the License
+ *  is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing permissions and limitations under
+ *  the License.
+ */
+
+package vip.justlive.easyhttp.mock;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import org.HdrHistogram.Histogram;
+
+/**
+ * 压测结果，延迟单位为微秒
+ * <p>
+ * 开环模式下直方图包含补记的样本，{@link #getCount()}可能大于实际调用数{@link #getCalls()}
+ *
+ * @author wubo
+ */
+public class LoadReport {
+  
+  private static final double MICROS_PER_MILLI = 1000.0;
+  private static final double MILLIS_PER_SECOND = 1000.0;
+  
+  private final Histogram histogram;
+  private final long calls;
+  private final long errors;
+  private final Duration elapsed;
+  
+  LoadReport(Histogram histogram, long calls, long errors, Duration elapsed) {
+    this.histogram = histogram;
+    this.calls = calls;
+    this.errors = errors;
+    this.elapsed = elapsed;
+  }
+  
+  public Histogram getHistogram() {
+    return histogram;
+  }
+  
+  /**
+   * 延迟样本数
+   *
+   * @return count
+   */
+  public long getCount() {
+    return histogram.getTotalCount();
+  }
+  
+  /**
+   * 成功的调用数
+   *
+   * @return calls
+   */
+  public long getCalls() {
+    return calls;
+  }
+  
+  public long getErrors() {
+    return errors;
+  }
+  
+  public Duration getElapsed() {
+    return elapsed;
+  }
+  
+  /**
+   * 每秒请求数
+   *
+   * @return throughput
+   */
+  public double throughput() {
+    long millis = Math.max(1, elapsed.toMillis());
+    return (calls + errors) * MILLIS_PER_SECOND / millis;
+  }
+  
+  /**
+   * 延迟分位数
+   *
+   * @param percentile 百分位，如99.9
+   * @return 微秒
+   */
+  public long percentile(double percentile) {
+    return histogram.getValueAtPercentile(percentile);
+  }
+  
+  /**
+   * 输出完整的延迟分布，单位毫秒
+   *
+   * @param out 输出
+   */
+  public void print(PrintStream out) {
+    out.println(this);
+    histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+  }
+  
+  @Override
+  public String toString() {
+    return String.format(
+        "calls=%d count=%d errors=%d elapsed=%dms throughput=%.1f/s "
+            + "p50=%.3fms p99=%.3fms p999=%.3fms max=%.3fms",
+        calls, getCount(), errors, elapsed.toMillis(), throughput(),
+        percentile(50) / MICROS_PER_MILLI, percentile(99) / MICROS_PER_MILLI,
+        percentile(99.9) / MICROS_PER_MILLI, histogram.getMaxValue() / MICROS_PER_MILLI);
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2019 justlive1
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software distributed under the License
+ *  is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing permissions and limitations under
+ *  the License.
+ */
+
+package vip.justlive.easyhttp.mock;
+
+import com.alibaba.fastjson.JSON;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.util.StreamUtils;
+import vip.justlive.easyhttp.factory.HttpClientFactoryBean;
+import vip.justlive.easyhttp.schedule.RequestScheduler;
+import vip.justlive.oxygen.core.util.net.http.HttpMethod;
+import vip.justlive.oxygen.core.util.net.http.HttpRequest;
+import vip.justlive.oxygen.core.util.net.http.HttpRequestExecution;
+import vip.justlive.oxygen.core.util.net.http.HttpResponse;
+
+/**
+ * 进程内的模拟传输，按路由返回预设或录制的响应，可配置延迟分布和错误率
+ * <p>
+ * 作为HttpRequestExecution注册为bean或通过{@link #proxy(Class)}直接创建客户端，无需真实的下游服务
+ *
+ * @author wubo
+ */
+public class MockHttpRequestExecution implements HttpRequestExecution {
+  
+  private final List<Route> routes = new CopyOnWriteArrayList<>();
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong errors = new AtomicLong();
+  private volatile LatencyDistribution latency = LatencyDistribution.none();
+  private volatile double errorRate;
+  private volatile MockResponse fallback = MockResponse.of(404, null);
+  
+  /**
+   * 增加路由，先添加的优先匹配
+   *
+   * @param method 请求方法，为null时匹配所有
+   * @param urlRegex 地址正则，不含query参数
+   * @param response 响应
+   * @return this
+   */
+  public MockHttpRequestExecution route(HttpMethod method, String urlRegex,
+      MockResponse response) {
+    return route(method, urlRegex, request -> response);
+  }
+  
+  /**
+   * 增加路由，先添加的优先匹配
+   *
+   * @param method 请求方法，为null时匹配所有
+   * @param urlRegex 地址正则，不含query参数
+   * @param handler 根据请求生成响应
+   * @return this
+   */
+  public MockHttpRequestExecution route(HttpMethod method, String urlRegex,
+      Function<HttpRequest, MockResponse> handler) {
+    routes.add(new Route(method, Pattern.compile(urlRegex), handler));
+    return this;
+  }
+  
+  /**
+   * 加载录制的响应，格式为MockResponse的json数组，url去掉query参数后按原样匹配
+   *
+   * @param in 录制文件
+   * @return this
+   * @throws IOException io异常
+   */
+  public MockHttpRequestExecution load(InputStream in) throws IOException {
+    String text = StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+    for (MockResponse recorded : JSON.parseArray(text, MockResponse.class)) {
+      HttpMethod method = recorded.getMethod() == null ? null
+          : HttpMethod.valueOf(recorded.getMethod().toUpperCase());
+      route(method, Pattern.quote(stripQuery(recorded.getUrl())), recorded);
+    }
+    return this;
+  }
+  
+  public MockHttpRequestExecution latency(LatencyDistribution latency) {
+    this.latency = latency;
+    return this;
+  }
+  
+  public MockHttpRequestExecution errorRate(double errorRate) {
+    this.errorRate = errorRate;
+    return this;
+  }
+  
+  /**
+   * 没有匹配路由时的响应，默认404
+   *
+   * @param fallback 响应
+   * @return this
+   */
+  public MockHttpRequestExecution fallback(MockResponse fallback) {
+    this.fallback = fallback;
+    return this;
+  }
+  
+  /**
+   * 使用当前传输创建客户端代理，与spring中创建的代理一致
+   *
+   * @param clientInterface 接口
+   * @param <T> 泛型
+   * @return proxy
+   */
+  public <T> T proxy(Class<T> clientInterface) {
+    return proxy(clientInterface, null);
+  }
+  
+  /**
+   * 使用当前传输和调度器创建客户端代理，用于验证并发数和排队配置
+   *
+   * @param clientInterface 接口
+   * @param scheduler 调度器
+   * @param <T> 泛型
+   * @return proxy
+   */
+  public <T> T proxy(Class<T> clientInterface, RequestScheduler scheduler) {
+    HttpClientFactoryBean<T> factoryBean = new HttpClientFactoryBean<>(clientInterface);
+    factoryBean.setEnvironment(new StandardEnvironment());
+    factoryBean.setRequestExecution(this);
+    factoryBean.setScheduler(scheduler);
+    return factoryBean.getObject();
+  }
+  
+  public long getRequests() {
+    return requests.get();
+  }
+  
+  public long getErrors() {
+    return errors.get();
+  }
+  
+  @Override
+  public HttpResponse execute(HttpRequest request) throws IOException {
+    requests.incrementAndGet();
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long delay = latency.nextMillis(random);
+    int readTimeout = request.getReadTimeout();
+    if (readTimeout > 0 && delay > readTimeout) {
+      sleep(readTimeout);
+      errors.incrementAndGet();
+      throw new SocketTimeoutException("Read timed out");
+    }
+    sleep(delay);
+    if (errorRate > 0 && random.nextDouble() < errorRate) {
+      errors.incrementAndGet();
+      throw new IOException("mock error for " + request.getUrl());
+    }
+    MockResponse mock = match(request);
+    HttpResponse response = new HttpResponse(mock.getStatus(), null,
+        new ByteArrayInputStream(mock.bodyAsBytes()), StandardCharsets.UTF_8);
+    response.setHeaders(new HashMap<>(mock.getHeaders()));
+    return response;
+  }
+  
+  private static void sleep(long millis) throws InterruptedIOException {
+    if (millis <= 0) {
+      return;
+    }
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("mock request interrupted");
+    }
+  }
+  
+  private static String stripQuery(String url) {
+    int index = url.indexOf('?');
+    if (index > -1) {
+      return url.substring(0, index);
+    }
+    return url;
+  }
+  
+  private MockResponse match(HttpRequest request) {
+    String url = stripQuery(request.getUrl());
+    for (Route route : routes) {
+      if ((route.method == null || route.method == request.getMethod()) && route.pattern
+          .matcher(url).matches()) {
+        MockResponse response = route.handler.apply(request);
+        if (response != null) {
+          return response;
+        }
+      }
+    }
+    return fallback;
+  }
+  
+  private static class Route {
+    
+    private final HttpMethod method;
+    private final Pattern pattern;
+    private final Function<HttpRequest, MockResponse> handler;
+    
+    Route(HttpMethod method, Pattern pattern, Function<HttpRequest, MockResponse> handler) {
+      this.method = method;
+      this.pattern = pattern;
+      this.handler = handler;
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2019 justlive1
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software distributed under the License
+ *  is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing permissions and limitations under
+ *  the License.
+ */
+
+package vip.justlive.easyhttp.mock;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import lombok.experimental.Accessors;
+import vip.justlive.oxygen.core.util.base.HttpHeaders;
+
+/**
+ * 模拟响应，也用于录制文件中的单条记录
+ *
+ * @author wubo
+ */
+@Data
+@Accessors(chain = true)
+public class MockResponse {
+  
+  /**
+   * 录制请求的方法，仅加载录制文件时使用
+   */
+  private String method;
+  
+  /**
+   * 录制请求的地址，仅加载录制文件时使用
+   */
+  private String url;
+  
+  private int status = 200;
+  private Map<String, String> headers = new HashMap<>(2);
+  private String body;
+  
+  /**
+   * 200 json响应
+   *
+   * @param body 响应体
+   * @return response
+   */
+  public static MockResponse json(String body) {
+    return of(200, body).header(HttpHeaders.CONTENT_TYPE, "application/json;charset=UTF-8");
+  }
+  
+  /**
+   * 指定状态码的响应
+   *
+   * @param status 状态码
+   * @param body 响应体
+   * @return response
+   */
+  public static MockResponse of(int status, String body) {
+    return new MockResponse().setStatus(status).setBody(body);
+  }
+  
+  public MockResponse header(String name, String value) {
+    headers.put(name, value);
+    return this;
+  }
+  
+  byte[] bodyAsBytes() {
+    if (body == null) {
+      return new byte[0];
+    }
+    return body.getBytes(StandardCharsets.UTF_8);
+  }
+}
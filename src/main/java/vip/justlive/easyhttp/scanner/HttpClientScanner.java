@@ -36,7 +36,7 @@ public class HttpClientScanner extends ClassPathBeanDefinitionScanner {
   
   private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientScanner.class);
   
-  HttpClientScanner(BeanDefinitionRegistry registry) {
+  public HttpClientScanner(BeanDefinitionRegistry registry) {
     super(registry, false);
     addIncludeFilter(new AnnotationTypeFilter(HttpClient.class));
   }
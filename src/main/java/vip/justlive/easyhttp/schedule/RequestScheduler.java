@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2019 justlive1
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software distributed under the License
+ *  is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing permissions and limitations under
+ *  the License.
+ */
+
+package vip.justlive.easyhttp.schedule;
+
+import java.io.Closeable;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import vip.justlive.easyhttp.annotation.Priority;
+import vip.justlive.easyhttp.factory.Deadline;
+
+/**
+ * 所有客户端共享的请求调度器
+ * <p>
+ * 并发数达到上限后请求按优先级排队，空闲时按权重在各优先级间公平分配；
+ * 队列已满时丢弃优先级最低的排队请求，没有更低优先级可丢弃时直接拒绝新请求
+ *
+ * @author wubo
+ */
+public class RequestScheduler {
+  
+  private static final Priority.Level[] LEVELS = Priority.Level.values();
+  private static final int[] DEFAULT_WEIGHTS = {8, 4, 1};
+  
+  private final int maxConcurrent;
+  private final int queueCapacity;
+  private final int[] weights = new int[LEVELS.length];
+  private final int[] credits = new int[LEVELS.length];
+  private final ArrayDeque<Waiter>[] queues;
+  private final ReentrantLock lock = new ReentrantLock();
+  private int inFlight;
+  private int queued;
+  
+  public RequestScheduler(int maxConcurrent, int queueCapacity) {
+    this(maxConcurrent, queueCapacity, null);
+  }
+  
+  /**
+   * 创建调度器
+   *
+   * @param maxConcurrent 最大并发数
+   * @param queueCapacity 排队上限
+   * @param weights 各优先级的权重，未配置的使用默认值（HIGH 8、NORMAL 4、LOW 1）
+   */
+  @SuppressWarnings("unchecked")
+  public RequestScheduler(int maxConcurrent, int queueCapacity,
+      Map<Priority.Level, Integer> weights) {
+    if (maxConcurrent <= 0) {
+      throw new IllegalArgumentException("maxConcurrent must be positive");
+    }
+    this.maxConcurrent = maxConcurrent;
+    this.queueCapacity = Math.max(0, queueCapacity);
+    this.queues = new ArrayDeque[LEVELS.length];
+    for (Priority.Level level : LEVELS) {
+      int index = level.ordinal();
+      this.queues[index] = new ArrayDeque<>();
+      this.weights[index] = DEFAULT_WEIGHTS[index];
+      if (weights != null && weights.get(level) != null) {
+        this.weights[index] = Math.max(1, weights.get(level));
+      }
+    }
+  }
+  
+  /**
+   * 获取执行许可，需要排队时最多等待到截止时间
+   *
+   * @param level 优先级
+   * @param deadline 截止时间，可为null
+   * @return permit
+   * @throws SocketTimeoutException 排队超过截止时间
+   * @throws InterruptedIOException 排队时被中断
+   * @throws RejectedExecutionException 饱和时被丢弃
+   */
+  public Permit acquire(Priority.Level level, Deadline deadline)
+      throws SocketTimeoutException, InterruptedIOException {
+    lock.lock();
+    try {
+      if (inFlight < maxConcurrent && queued == 0) {
+        inFlight++;
+        return new Permit();
+      }
+      if (queued >= queueCapacity && !shedLowerThan(level)) {
+        throw new RejectedExecutionException("request scheduler saturated, rejected " + level);
+      }
+      Waiter waiter = new Waiter(lock.newCondition());
+      queues[level.ordinal()].addLast(waiter);
+      queued++;
+      await(waiter, level, deadline);
+      return new Permit();
+    } finally {
+      lock.unlock();
+    }
+  }
+  
+  public int getInFlight() {
+    lock.lock();
+    try {
+      return inFlight;
+    } finally {
+      lock.unlock();
+    }
+  }
+  
+  public int getQueued() {
+    lock.lock();
+    try {
+      return queued;
+    } finally {
+      lock.unlock();
+    }
+  }
+  
+  private void await(Waiter waiter, Priority.Level level, Deadline deadline)
+      throws SocketTimeoutException, InterruptedIOException {
+    try {
+      long nanos = 0;
+      if (deadline != null) {
+        nanos = TimeUnit.MILLISECONDS.toNanos(deadline.remainingMillis());
+      }
+      while (waiter.state == Waiter.WAITING) {
+        if (deadline == null) {
+          waiter.condition.await();
+        } else if (nanos <= 0) {
+          abandon(waiter, level);
+          throw new SocketTimeoutException("deadline exceeded while queued as " + level);
+        } else {
+          nanos = waiter.condition.awaitNanos(nanos);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      if (waiter.state == Waiter.GRANTED) {
+        release();
+      } else if (waiter.state == Waiter.WAITING) {
+        abandon(waiter, level);
+      }
+      throw new InterruptedIOException("interrupted while queued as " + level);
+    }
+    if (waiter.state == Waiter.SHED) {
+      throw new RejectedExecutionException("request scheduler saturated, shed " + level);
+    }
+  }
+  
+  private void abandon(Waiter waiter, Priority.Level level) {
+    if (queues[level.ordinal()].remove(waiter)) {
+      queued--;
+    }
+  }
+  
+  private boolean shedLowerThan(Priority.Level level) {
+    for (int i = LEVELS.length - 1; i > level.ordinal(); i--) {
+      Waiter victim = queues[i].pollLast();
+      if (victim != null) {
+        queued--;
+        victim.state = Waiter.SHED;
+        victim.condition.signal();
+        return true;
+      }
+    }
+    return false;
+  }
+  
+  private void release() {
+    lock.lock();
+    try {
+      inFlight--;
+      while (inFlight < maxConcurrent && queued > 0) {
+        Waiter next = queues[nextLevel()].pollFirst();
+        queued--;
+        inFlight++;
+        next.state = Waiter.GRANTED;
+        next.condition.signal();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+  
+  /**
+   * 平滑加权轮询，只在有排队请求的优先级间分配
+   */
+  private int nextLevel() {
+    int total = 0;
+    int best = -1;
+    for (int i = 0; i < LEVELS.length; i++) {
+      if (queues[i].isEmpty()) {
+        continue;
+      }
+      credits[i] += weights[i];
+      total += weights[i];
+      if (best < 0 || credits[i] > credits[best]) {
+        best = i;
+      }
+    }
+    credits[best] -= total;
+    return best;
+  }
+  
+  /**
+   * 执行许可，请求结束后关闭
+   */
+  public class Permit implements Closeable {
+    
+    private boolean released;
+    
+    @Override
+    public void close() {
+      if (!released) {
+        released = true;
+        release();
+      }
+    }
+  }
+  
+  private static class Waiter {
+    
+    private static final int WAITING = 0;
+    private static final int GRANTED = 1;
+    private static final int SHED = 2;
+    
+    private final Condition condition;
+    private int state = WAITING;
+    
+    Waiter(Condition condition) {
+      this.condition = condition;
+    }
+  }
+}
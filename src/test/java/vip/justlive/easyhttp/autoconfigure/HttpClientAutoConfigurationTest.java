@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2019 justlive1
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software distributed under the License
+ *  is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing permissions and limitations under
+ *  the License.
+ */
+
+package vip.justlive.easyhttp.autoconfigure;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import vip.justlive.easyhttp.autoconfigure.app.AppClient;
+import vip.justlive.easyhttp.autoconfigure.app.AppConfiguration;
+import vip.justlive.easyhttp.autoconfigure.explicit.ExplicitClient;
+import vip.justlive.easyhttp.autoconfigure.explicit.ExplicitConfiguration;
+import vip.justlive.easyhttp.config.HttpClientProperties;
+import vip.justlive.easyhttp.mock.MockHttpRequestExecution;
+import vip.justlive.easyhttp.mock.MockResponse;
+import vip.justlive.easyhttp.schedule.RequestScheduler;
+import vip.justlive.oxygen.core.util.net.http.HttpRequestExecution;
+
+class HttpClientAutoConfigurationTest {
+  
+  private final ApplicationContextRunner runner = new ApplicationContextRunner()
+      .withConfiguration(AutoConfigurations.of(HttpClientAutoConfiguration.class));
+  
+  @Test
+  void scanAutoConfigurationPackage() {
+    runner.withUserConfiguration(AppConfiguration.class, MockConfiguration.class)
+        .withPropertyValues("easy-http.clients.appClient.url=http://client",
+            "easy-http.clients.appClient.headers.X-App=a").run(context -> {
+          Assertions.assertNull(context.getStartupFailure());
+          Assertions.assertEquals("http://client",
+              context.getBean(HttpClientProperties.class).getClient("appClient").getUrl());
+          Assertions.assertEquals("ok", context.getBean(AppClient.class).ping());
+          Assertions.assertTrue(context.getBeansOfType(RequestScheduler.class).isEmpty());
+          Assertions.assertTrue(
+              context.getBeansOfType(HttpClientPropertiesRefresher.class).isEmpty());
+        });
+  }
+  
+  @Test
+  void explicitScanDisablesFallback() {
+    runner.withUserConfiguration(AppConfiguration.class, ExplicitConfiguration.class)
+        .run(context -> {
+          Assertions.assertNull(context.getStartupFailure());
+          Assertions.assertEquals(1, context.getBeansOfType(ExplicitClient.class).size());
+          Assertions.assertTrue(context.getBeansOfType(AppClient.class).isEmpty());
+        });
+  }
+  
+  @Test
+  void scheduler() {
+    runner.withUserConfiguration(AppConfiguration.class)
+        .withPropertyValues("easy-http.scheduler.enabled=true",
+            "easy-http.scheduler.max-concurrent=8").run(context -> {
+          Assertions.assertNull(context.getStartupFailure());
+          Assertions.assertEquals(0, context.getBean(RequestScheduler.class).getInFlight());
+        });
+  }
+  
+  @Configuration(proxyBeanMethods = false)
+  static class MockConfiguration {
+    
+    @Bean
+    HttpRequestExecution httpRequestExecution() {
+      // 只响应配置中的地址，验证配置已生效
+      return new MockHttpRequestExecution()
+          .route(null, "http://client/ping", request -> MockResponse.json(
+              "a".equals(request.getHeaders().get("X-App")) ? "ok" : "missing header"));
+    }
+  }
+}
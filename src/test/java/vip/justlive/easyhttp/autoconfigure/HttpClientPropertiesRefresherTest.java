@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2019 justlive1
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software distributed under the License
+ *  is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing permissions and limitations under
+ *  the License.
+ */
+
+package vip.justlive.easyhttp.autoconfigure;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import vip.justlive.easyhttp.config.HttpClientProperties;
+
+class HttpClientPropertiesRefresherTest {
+  
+  @Test
+  void refresh() {
+    Map<String, Object> source = new HashMap<>(4);
+    source.put("easy-http.clients.a.url", "http://a");
+    source.put("easy-http.clients.b.read-timeout", "2s");
+    StandardEnvironment environment = new StandardEnvironment();
+    environment.getPropertySources().addFirst(new MapPropertySource("test", source));
+    HttpClientProperties properties = new HttpClientProperties();
+    HttpClientPropertiesRefresher refresher = new HttpClientPropertiesRefresher(properties);
+    refresher.setEnvironment(environment);
+    
+    refresher.refresh();
+    Assertions.assertEquals("http://a", properties.getClient("a").getUrl());
+    Assertions.assertEquals(Duration.ofSeconds(2), properties.getClient("b").getReadTimeout());
+    
+    source.remove("easy-http.clients.b.read-timeout");
+    source.put("easy-http.clients.a.url", "http://a2");
+    refresher.refresh();
+    Assertions.assertEquals("http://a2", properties.getClient("a").getUrl());
+    Assertions.assertNull(properties.getClient("b"));
+  }
+  
+  @Test
+  void rebindReplacesClients() {
+    Map<String, Object> source = new HashMap<>(4);
+    source.put("easy-http.clients.a.url", "http://a");
+    StandardEnvironment environment = new StandardEnvironment();
+    environment.getPropertySources().addFirst(new MapPropertySource("test", source));
+    HttpClientProperties properties = new HttpClientProperties();
+    Binder.get(environment).bind(HttpClientProperties.PREFIX, Bindable.ofInstance(properties));
+    Map<String, HttpClientProperties.Client> published = properties.getClients();
+    
+    // 与spring-cloud的ConfigurationPropertiesRebinder一样在已有实例上重新绑定
+    source.put("easy-http.clients.b.url", "http://b");
+    Binder.get(environment).bind(HttpClientProperties.PREFIX, Bindable.ofInstance(properties));
+    
+    Assertions.assertEquals(1, published.size());
+    Assertions.assertThrows(UnsupportedOperationException.class, () -> published.put("c", null));
+    Assertions.assertEquals("http://a", properties.getClient("a").getUrl());
+    Assertions.assertEquals("http://b", properties.getClient("b").getUrl());
+  }
+}
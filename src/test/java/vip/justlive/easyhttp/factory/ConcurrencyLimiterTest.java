@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2019 justlive1
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software distributed under the License
+ *  is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing permissions and limitations under
+ *  the License.
+ */
+
+package vip.justlive.easyhttp.factory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ConcurrencyLimiterTest {
+  
+  @Test
+  void limit() throws IOException {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter("test");
+    Assertions.assertNull(limiter.acquire(0));
+    
+    Closeable first = limiter.acquire(1);
+    Assertions.assertThrows(RejectedExecutionException.class, () -> limiter.acquire(1));
+    first.close();
+    limiter.acquire(1).close();
+  }
+  
+  @Test
+  void resize() throws IOException {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter("test");
+    Closeable first = limiter.acquire(1);
+    Assertions.assertThrows(RejectedExecutionException.class, () -> limiter.acquire(1));
+    
+    // 新的上限重新计数，旧上限下的请求归还到旧的信号量
+    Closeable second = limiter.acquire(2);
+    Closeable third = limiter.acquire(2);
+    Assertions.assertThrows(RejectedExecutionException.class, () -> limiter.acquire(2));
+    first.close();
+    Assertions.assertThrows(RejectedExecutionException.class, () -> limiter.acquire(2));
+    second.close();
+    limiter.acquire(2).close();
+    third.close();
+  }
+}
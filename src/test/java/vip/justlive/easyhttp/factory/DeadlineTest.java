@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2019 justlive1
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software distributed under the License
+ *  is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing permissions and limitations under
+ *  the License.
+ */
+
+package vip.justlive.easyhttp.factory;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import vip.justlive.easyhttp.annotation.HttpClient;
+import vip.justlive.easyhttp.annotation.Timeout;
+import vip.justlive.easyhttp.config.HttpClientProperties;
+import vip.justlive.easyhttp.mock.MockHttpRequestExecution;
+import vip.justlive.easyhttp.mock.MockResponse;
+import vip.justlive.oxygen.core.util.net.http.HttpRequest;
+
+class DeadlineTest {
+  
+  @Test
+  void bindRestoresPrevious() {
+    try (Deadline.Binding ignored = Deadline.bind(Deadline.after(1000))) {
+      String outer = MDC.get(Deadline.DEADLINE);
+      try (Deadline.Binding inner = Deadline.bind(Deadline.after(10))) {
+        Assertions.assertNotEquals(outer, MDC.get(Deadline.DEADLINE));
+      }
+      Assertions.assertEquals(outer, MDC.get(Deadline.DEADLINE));
+      Assertions.assertTrue(Deadline.current().remainingMillis() > 900);
+    }
+    Assertions.assertNull(MDC.get(Deadline.DEADLINE));
+  }
+  
+  @Test
+  void earliest() {
+    Deadline near = Deadline.after(100);
+    Deadline far = Deadline.at(System.currentTimeMillis() + 10000);
+    Assertions.assertSame(near, Deadline.earliest(far, near));
+    Assertions.assertSame(far, Deadline.earliest(far, null));
+    Assertions.assertTrue(Deadline.at(System.currentTimeMillis() - 1).isExpired());
+    Assertions.assertFalse(far.isExpired());
+  }
+  
+  @Test
+  void propagateBudget() throws IOException {
+    AtomicReference<HttpRequest> captured = new AtomicReference<>();
+    MockHttpRequestExecution mock = new MockHttpRequestExecution()
+        .route(null, ".*", request -> {
+          captured.set(request);
+          return MockResponse.json("ok");
+        });
+    
+    mock.proxy(SlowApi.class).get(Duration.ofMillis(500));
+    HttpRequest request = captured.get();
+    int remaining = Integer.parseInt(request.getHeaders().get(Deadline.REQUEST_TIMEOUT));
+    Assertions.assertTrue(remaining > 0 && remaining <= 500, "request-timeout " + remaining);
+    Assertions.assertTrue(request.getConnectTimeout() <= 500);
+    Assertions.assertTrue(request.getReadTimeout() <= 500);
+    Assertions.assertTrue(request.getReadTimeout() >= remaining);
+  }
+  
+  @Test
+  void clientTimeoutBelowBudget() throws IOException {
+    AtomicReference<HttpRequest> captured = new AtomicReference<>();
+    MockHttpRequestExecution mock = new MockHttpRequestExecution()
+        .route(null, ".*", request -> {
+          captured.set(request);
+          return MockResponse.json("ok");
+        });
+    HttpClientProperties.Client client = new HttpClientProperties.Client();
+    client.setConnectTimeout(Duration.ofMillis(100));
+    client.setReadTimeout(Duration.ofSeconds(30));
+    HttpClientProperties properties = new HttpClientProperties();
+    properties.setClients(Collections.singletonMap("slowApi", client));
+    HttpClientFactoryBean<SlowApi> factoryBean = new HttpClientFactoryBean<>(SlowApi.class);
+    factoryBean.setEnvironment(new StandardEnvironment());
+    factoryBean.setRequestExecution(mock);
+    factoryBean.setProperties(properties);
+    
+    factoryBean.getObject().get(Duration.ofSeconds(5));
+    HttpRequest request = captured.get();
+    Assertions.assertEquals(100, request.getConnectTimeout());
+    Assertions.assertTrue(request.getReadTimeout() > 4000 && request.getReadTimeout() <= 5000);
+  }
+  
+  @Test
+  void expiredBeforeRequest() {
+    MockHttpRequestExecution mock = new MockHttpRequestExecution()
+        .route(null, ".*", MockResponse.json("ok"));
+    SlowApi api = mock.proxy(SlowApi.class);
+    
+    try (Deadline.Binding ignored = Deadline.bind(Deadline.at(System.currentTimeMillis() - 1))) {
+      Assertions.assertThrows(SocketTimeoutException.class, () -> api.get(Duration.ofSeconds(1)));
+    }
+    Assertions.assertEquals(0, mock.getRequests());
+  }
+  
+  @Test
+  void expiredAfterResponse() {
+    MockHttpRequestExecution mock = new MockHttpRequestExecution()
+        .route(null, ".*", request -> {
+          sleep(150);
+          return MockResponse.json("ok");
+        });
+    SlowApi api = mock.proxy(SlowApi.class);
+    
+    Assertions.assertThrows(SocketTimeoutException.class, () -> api.get(Duration.ofMillis(50)));
+    Assertions.assertEquals(1, mock.getRequests());
+  }
+  
+  @Test
+  void timeoutOnClientInterface() {
+    MockHttpRequestExecution mock = new MockHttpRequestExecution()
+        .route(null, ".*", request -> {
+          sleep(150);
+          return MockResponse.json("ok");
+        });
+    InheritedApi api = mock.proxy(InheritedApi.class);
+    
+    Assertions.assertThrows(SocketTimeoutException.class, api::get);
+  }
+  
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+  
+  @HttpClient
+  @RequestMapping("http://mock")
+  interface SlowApi {
+    
+    @GetMapping("/slow")
+    String get(Duration timeout) throws IOException;
+  }
+  
+  interface BaseApi {
+    
+    @GetMapping("/slow")
+    String get() throws IOException;
+  }
+  
+  @HttpClient
+  @Timeout(50)
+  @RequestMapping("http://mock")
+  interface InheritedApi extends BaseApi {
+  
+  }
+}
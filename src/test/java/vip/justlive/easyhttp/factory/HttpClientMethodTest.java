@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2019 justlive1
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software distributed under the License
+ *  is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing permissions and limitations under
+ *  the License.
+ */
+
+package vip.justlive.easyhttp.factory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import vip.justlive.easyhttp.annotation.HttpClient;
+import vip.justlive.easyhttp.config.HttpClientProperties;
+import vip.justlive.easyhttp.mock.MockHttpRequestExecution;
+import vip.justlive.easyhttp.mock.MockResponse;
+import vip.justlive.oxygen.core.util.net.http.HttpRequest;
+
+class HttpClientMethodTest {
+  
+  private final AtomicReference<HttpRequest> captured = new AtomicReference<>();
+  private final MockHttpRequestExecution mock = new MockHttpRequestExecution()
+      .route(null, ".*/(repos/.*|ping)", request -> {
+        captured.set(request);
+        return MockResponse.json("ok");
+      });
+  private final HttpClientProperties properties = new HttpClientProperties();
+  private final HttpClientProperties.Client client = new HttpClientProperties.Client();
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+  
+  @Test
+  void url() throws IOException {
+    RepoApi api = proxy();
+    api.repo("a");
+    Assertions.assertEquals("http://root/repos/a", captured.get().getUrl());
+    
+    client.setUrl("http://client/v1");
+    api.repo("a");
+    Assertions.assertEquals("http://client/v1/repos/a", captured.get().getUrl());
+    
+    api.absolute();
+    Assertions.assertEquals("http://absolute/ping", captured.get().getUrl());
+  }
+  
+  @Test
+  void headers() throws IOException {
+    client.setHeaders(Collections.singletonMap("X-Client", "a"));
+    proxy().repo("a");
+    Assertions.assertEquals("a", captured.get().getHeaders().get("X-Client"));
+  }
+  
+  @Test
+  void timeouts() throws IOException {
+    client.setConnectTimeout(Duration.ofSeconds(1));
+    client.setReadTimeout(Duration.ofSeconds(2));
+    proxy().repo("a");
+    Assertions.assertEquals(1000, captured.get().getConnectTimeout());
+    Assertions.assertEquals(2000, captured.get().getReadTimeout());
+  }
+  
+  @Test
+  void maxConcurrent() throws Exception {
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    mock.route(null, "http://root/slow", request -> {
+      entered.countDown();
+      await(release);
+      return MockResponse.json("slow");
+    });
+    client.setMaxConcurrent(1);
+    RepoApi api = proxy();
+    CompletableFuture<String> slow = CompletableFuture.supplyAsync(api::slow, executor);
+    Assertions.assertTrue(entered.await(1, TimeUnit.SECONDS));
+    
+    Assertions.assertThrows(RejectedExecutionException.class, () -> api.repo("a"));
+    
+    release.countDown();
+    Assertions.assertEquals("slow", slow.get(1, TimeUnit.SECONDS));
+    Assertions.assertEquals("ok", api.repo("a"));
+  }
+  
+  private RepoApi proxy() {
+    properties.setClients(Collections.singletonMap("repoApi", client));
+    HttpClientFactoryBean<RepoApi> factoryBean = new HttpClientFactoryBean<>(RepoApi.class);
+    factoryBean.setEnvironment(new StandardEnvironment());
+    factoryBean.setRequestExecution(mock);
+    factoryBean.setProperties(properties);
+    return factoryBean.getObject();
+  }
+  
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(1, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+  
+  @HttpClient
+  @RequestMapping("http://root")
+  interface RepoApi {
+    
+    @GetMapping("/repos/{name}")
+    String repo(@PathVariable("name") String name) throws IOException;
+    
+    @GetMapping("/slow")
+    String slow();
+    
+    @GetMapping("http://absolute/ping")
+    String absolute() throws IOException;
+  }
+}
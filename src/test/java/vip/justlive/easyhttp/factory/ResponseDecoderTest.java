@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2019 justlive1
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software distributed under the License
+ *  is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing permissions and limitations under
+ *  the License.
+ */
+
+package vip.justlive.easyhttp.factory;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.TypeReference;
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ResponseDecoderTest {
+  
+  @Test
+  void bean() throws Exception {
+    assertSame(Repo.class, "{\"id\":1,\"name\":\"easy-http\",\"tags\":[\"a\",\"b\"]}");
+  }
+  
+  @Test
+  void generic() throws Exception {
+    assertSame(new TypeReference<List<Repo>>() {}.getType(),
+        "[{\"id\":1,\"name\":\"a\"},{\"id\":2,\"name\":\"b\"}]");
+    assertSame(new TypeReference<Map<String, Integer>>() {}.getType(), "{\"a\":1,\"b\":2}");
+  }
+  
+  @Test
+  void scalar() throws Exception {
+    assertSame(Integer.class, "12");
+    assertSame(Integer.class, "null");
+    assertSame(byte[].class, "\"ZWFzeS1odHRw\"");
+  }
+  
+  @Test
+  void optional() throws Exception {
+    Type type = new TypeReference<Optional<String>>() {}.getType();
+    assertSame(type, "null");
+    assertSame(type, "\"a\"");
+    Assertions.assertEquals(Optional.empty(), new ResponseDecoder(type).decode("null"));
+  }
+  
+  @Test
+  void empty() throws Exception {
+    ResponseDecoder decoder = new ResponseDecoder(Repo.class);
+    Assertions.assertNull(decoder.decode(""));
+    Assertions.assertNull(
+        decoder.decode(new ByteArrayInputStream(new byte[0]), StandardCharsets.UTF_8));
+  }
+  
+  @Test
+  void largeBody() throws Exception {
+    StringBuilder sb = new StringBuilder("[");
+    for (int i = 0; i < 4000; i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append("{\"id\":").append(i).append(",\"name\":\"仓库-").append(i).append("\"}");
+    }
+    String text = sb.append(']').toString();
+    Assertions.assertTrue(text.length() > 64 * 1024);
+    assertSame(new TypeReference<List<Repo>>() {}.getType(), text);
+  }
+  
+  @Test
+  void charset() throws Exception {
+    String text = "{\"id\":1,\"name\":\"中文\"}";
+    Charset gbk = Charset.forName("GBK");
+    Object value = new ResponseDecoder(Repo.class)
+        .decode(new ByteArrayInputStream(text.getBytes(gbk)), gbk);
+    Assertions.assertEquals("中文", ((Repo) value).getName());
+  }
+  
+  private static void assertSame(Type type, String text) throws Exception {
+    String expected = JSON.toJSONString(JSON.parseObject(text, type));
+    ResponseDecoder decoder = new ResponseDecoder(type);
+    // 重复解析，确保复用的缓冲区不会残留上次的内容
+    for (int i = 0; i < 2; i++) {
+      Assertions.assertEquals(expected, JSON.toJSONString(decoder.decode(text)));
+      Assertions.assertEquals(expected, JSON.toJSONString(decoder.decode(
+          new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)),
+          StandardCharsets.UTF_8)));
+    }
+  }
+  
+  public static class Repo {
+    
+    private long id;
+    private String name;
+    private List<String> tags;
+    
+    public long getId() {
+      return id;
+    }
+    
+    public void setId(long id) {
+      this.id = id;
+    }
+    
+    public String getName() {
+      return name;
+    }
+    
+    public void setName(String name) {
+      this.name = name;
+    }
+    
+    public List<String> getTags() {
+      return tags;
+    }
+    
+    public void setTags(List<String> tags) {
+      this.tags = tags;
+    }
+  }
+}
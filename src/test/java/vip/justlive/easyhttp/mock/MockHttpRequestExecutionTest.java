@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2019 justlive1
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software distributed under the License
+ *  is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing permissions and limitations under
+ *  the License.
+ */
+
+package vip.justlive.easyhttp.mock;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import vip.justlive.easyhttp.annotation.HttpClient;
+import vip.justlive.oxygen.core.util.net.http.HttpMethod;
+
+class MockHttpRequestExecutionTest {
+  
+  @Test
+  void route() {
+    MockHttpRequestExecution mock = new MockHttpRequestExecution()
+        .route(HttpMethod.GET, "http://mock/repos/.*",
+            MockResponse.json("{\"id\":1,\"name\":\"a\"}"));
+    RepoApi api = mock.proxy(RepoApi.class);
+    
+    Repo repo = api.repo("a");
+    Assertions.assertEquals(1L, repo.id);
+    Assertions.assertEquals("a", repo.name);
+    Assertions.assertEquals(1, mock.getRequests());
+  }
+  
+  @Test
+  void loadRecordedWithQuery() throws Exception {
+    String recorded = "[{\"method\":\"GET\",\"url\":\"http://mock/search?q=x\",\"body\":\"ok\"}]";
+    MockHttpRequestExecution mock = new MockHttpRequestExecution()
+        .load(new ByteArrayInputStream(recorded.getBytes(StandardCharsets.UTF_8)));
+    
+    Assertions.assertEquals("ok", mock.proxy(RepoApi.class).search("x"));
+  }
+  
+  @Test
+  void readTimeout() {
+    MockHttpRequestExecution mock = new MockHttpRequestExecution()
+        .route(null, ".*", MockResponse.json("{}")).latency(LatencyDistribution.fixed(500));
+    RepoApi api = mock.proxy(RepoApi.class);
+    
+    Assertions.assertThrows(SocketTimeoutException.class,
+        () -> api.repo("a", Duration.ofMillis(50)));
+    Assertions.assertEquals(1, mock.getErrors());
+  }
+  
+  @Test
+  void replay() throws Exception {
+    MockHttpRequestExecution mock = new MockHttpRequestExecution()
+        .route(null, ".*", MockResponse.json("{\"id\":2}"));
+    String recorded =
+        "[{\"method\":\"repo\",\"args\":[\"a\"]},{\"method\":\"repo\",\"args\":[\"b\"]}]";
+    
+    LoadReport report = new LoadDriver().threads(2).warmup(2).requests(20)
+        .replay(RepoApi.class, mock.proxy(RepoApi.class),
+            new ByteArrayInputStream(recorded.getBytes(StandardCharsets.UTF_8))).run();
+    
+    Assertions.assertEquals(20, report.getCount());
+    Assertions.assertEquals(0, report.getErrors());
+    Assertions.assertEquals(22, mock.getRequests());
+  }
+  
+  @Test
+  void openLoopPacing() throws Exception {
+    MockHttpRequestExecution mock = new MockHttpRequestExecution()
+        .route(null, ".*", MockResponse.json("{\"id\":3}"));
+    RepoApi api = mock.proxy(RepoApi.class);
+    
+    LoadReport report = new LoadDriver().threads(2).rate(200).requests(20)
+        .call(() -> api.repo("a")).run();
+    
+    Assertions.assertEquals(20, report.getCalls());
+    Assertions.assertEquals(20, report.getCount());
+    // 20个调用间隔5ms，至少需要95ms
+    Assertions.assertTrue(report.getElapsed().toMillis() >= 80, report.toString());
+  }
+  
+  @Test
+  void openLoopCorrectsCoordinatedOmission() throws Exception {
+    MockHttpRequestExecution mock = new MockHttpRequestExecution()
+        .route(null, ".*", MockResponse.json("{\"id\":3}"))
+        .latency(LatencyDistribution.fixed(50));
+    RepoApi api = mock.proxy(RepoApi.class);
+    
+    LoadReport closed = new LoadDriver().threads(1).requests(4).call(() -> api.repo("a")).run();
+    LoadReport open = new LoadDriver().threads(1).rate(100).requests(4)
+        .call(() -> api.repo("a")).run();
+    
+    Assertions.assertEquals(4, closed.getCount());
+    Assertions.assertEquals(4, open.getCalls());
+    // 每个50ms的调用至少阻塞了4个10ms的计划调用，补记为40、30、20、10ms
+    Assertions.assertTrue(open.getCount() >= 20, open.toString());
+    Assertions.assertTrue(open.percentile(50) < closed.percentile(50));
+    Assertions.assertTrue(open.getHistogram().getMinValue() < 15_000);
+  }
+  
+  @HttpClient
+  @RequestMapping("http://mock")
+  interface RepoApi {
+    
+    @GetMapping("/repos/{name}")
+    Repo repo(@PathVariable("name") String name);
+    
+    @GetMapping("/repos/{name}")
+    Repo repo(@PathVariable("name") String name, Duration timeout) throws IOException;
+    
+    @GetMapping("/search")
+    String search(@RequestParam("q") String q);
+  }
+  
+  static class Repo {
+    
+    public Long id;
+    public String name;
+  }
+}
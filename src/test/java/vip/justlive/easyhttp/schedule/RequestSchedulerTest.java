@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2019 justlive1
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software distributed under the License
+ *  is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing permissions and limitations under
+ *  the License.
+ */
+
+package vip.justlive.easyhttp.schedule;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import vip.justlive.easyhttp.annotation.HttpClient;
+import vip.justlive.easyhttp.annotation.Priority;
+import vip.justlive.easyhttp.factory.Deadline;
+import vip.justlive.easyhttp.mock.MockHttpRequestExecution;
+import vip.justlive.easyhttp.mock.MockResponse;
+
+class RequestSchedulerTest {
+  
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+  
+  @Test
+  void grant() throws Exception {
+    RequestScheduler scheduler = new RequestScheduler(2, 0);
+    RequestScheduler.Permit a = scheduler.acquire(Priority.Level.LOW, null);
+    RequestScheduler.Permit b = scheduler.acquire(Priority.Level.LOW, null);
+    Assertions.assertEquals(2, scheduler.getInFlight());
+    
+    a.close();
+    a.close();
+    Assertions.assertEquals(1, scheduler.getInFlight());
+    b.close();
+    Assertions.assertEquals(0, scheduler.getInFlight());
+  }
+  
+  @Test
+  void grantOnRelease() throws Exception {
+    RequestScheduler scheduler = new RequestScheduler(1, 1);
+    RequestScheduler.Permit held = scheduler.acquire(Priority.Level.NORMAL, null);
+    CompletableFuture<RequestScheduler.Permit> waiting = CompletableFuture
+        .supplyAsync(() -> acquire(scheduler, Priority.Level.NORMAL, null), executor);
+    awaitQueued(scheduler, 1);
+    Assertions.assertFalse(waiting.isDone());
+    
+    held.close();
+    waiting.get(1, TimeUnit.SECONDS).close();
+    Assertions.assertEquals(0, scheduler.getInFlight());
+    Assertions.assertEquals(0, scheduler.getQueued());
+  }
+  
+  @Test
+  void weightedOrder() throws Exception {
+    RequestScheduler scheduler = new RequestScheduler(1, 3);
+    RequestScheduler.Permit held = scheduler.acquire(Priority.Level.NORMAL, null);
+    List<Priority.Level> granted = new CopyOnWriteArrayList<>();
+    Priority.Level[] levels = {Priority.Level.LOW, Priority.Level.NORMAL, Priority.Level.HIGH};
+    CompletableFuture<?>[] futures = new CompletableFuture[levels.length];
+    for (int i = 0; i < levels.length; i++) {
+      Priority.Level level = levels[i];
+      futures[i] = CompletableFuture.runAsync(() -> {
+        RequestScheduler.Permit permit = acquire(scheduler, level, null);
+        granted.add(level);
+        permit.close();
+      }, executor);
+      awaitQueued(scheduler, i + 1);
+    }
+    
+    held.close();
+    CompletableFuture.allOf(futures).get(1, TimeUnit.SECONDS);
+    Assertions.assertEquals(
+        Arrays.asList(Priority.Level.HIGH, Priority.Level.NORMAL, Priority.Level.LOW),
+        granted);
+  }
+  
+  @Test
+  void shedLower() throws Exception {
+    RequestScheduler scheduler = new RequestScheduler(1, 1);
+    RequestScheduler.Permit held = scheduler.acquire(Priority.Level.NORMAL, null);
+    CompletableFuture<RequestScheduler.Permit> low = CompletableFuture
+        .supplyAsync(() -> acquire(scheduler, Priority.Level.LOW, null), executor);
+    awaitQueued(scheduler, 1);
+    CompletableFuture<RequestScheduler.Permit> high = CompletableFuture
+        .supplyAsync(() -> acquire(scheduler, Priority.Level.HIGH, null), executor);
+    
+    ExecutionException e = Assertions
+        .assertThrows(ExecutionException.class, () -> low.get(1, TimeUnit.SECONDS));
+    Assertions.assertTrue(e.getCause() instanceof RejectedExecutionException);
+    awaitQueued(scheduler, 1);
+    
+    held.close();
+    high.get(1, TimeUnit.SECONDS).close();
+    Assertions.assertEquals(0, scheduler.getInFlight());
+  }
+  
+  @Test
+  void rejectWithoutLower() throws Exception {
+    RequestScheduler scheduler = new RequestScheduler(1, 1);
+    RequestScheduler.Permit held = scheduler.acquire(Priority.Level.NORMAL, null);
+    CompletableFuture<RequestScheduler.Permit> queued = CompletableFuture
+        .supplyAsync(() -> acquire(scheduler, Priority.Level.LOW, null), executor);
+    awaitQueued(scheduler, 1);
+    
+    Assertions.assertThrows(RejectedExecutionException.class,
+        () -> scheduler.acquire(Priority.Level.LOW, null));
+    Assertions.assertEquals(1, scheduler.getQueued());
+    
+    held.close();
+    queued.get(1, TimeUnit.SECONDS).close();
+  }
+  
+  @Test
+  void deadlineWhileQueued() throws Exception {
+    RequestScheduler scheduler = new RequestScheduler(1, 1);
+    RequestScheduler.Permit held = scheduler.acquire(Priority.Level.NORMAL, null);
+    
+    Assertions.assertThrows(SocketTimeoutException.class,
+        () -> scheduler.acquire(Priority.Level.NORMAL, Deadline.after(50)));
+    Assertions.assertEquals(0, scheduler.getQueued());
+    Assertions.assertEquals(1, scheduler.getInFlight());
+    held.close();
+  }
+  
+  @Test
+  void interrupted() throws Exception {
+    RequestScheduler scheduler = new RequestScheduler(1, 1);
+    RequestScheduler.Permit held = scheduler.acquire(Priority.Level.NORMAL, null);
+    Future<RequestScheduler.Permit> task = executor
+        .submit(() -> scheduler.acquire(Priority.Level.NORMAL, null));
+    awaitQueued(scheduler, 1);
+    
+    executor.shutdownNow();
+    ExecutionException e = Assertions
+        .assertThrows(ExecutionException.class, () -> task.get(1, TimeUnit.SECONDS));
+    Assertions.assertTrue(e.getCause() instanceof InterruptedIOException);
+    Assertions.assertEquals(0, scheduler.getQueued());
+    held.close();
+    Assertions.assertEquals(0, scheduler.getInFlight());
+  }
+  
+  @Test
+  void priorityOnClientInterface() throws Exception {
+    RequestScheduler scheduler = new RequestScheduler(1, 1);
+    LowApi api = new MockHttpRequestExecution().route(null, ".*", MockResponse.json("ok"))
+        .proxy(LowApi.class, scheduler);
+    RequestScheduler.Permit held = scheduler.acquire(Priority.Level.NORMAL, null);
+    Future<String> low = CompletableFuture.supplyAsync(api::get, executor);
+    awaitQueued(scheduler, 1);
+    CompletableFuture<RequestScheduler.Permit> normal = CompletableFuture
+        .supplyAsync(() -> acquire(scheduler, Priority.Level.NORMAL, null), executor);
+    
+    ExecutionException e = Assertions
+        .assertThrows(ExecutionException.class, () -> low.get(1, TimeUnit.SECONDS));
+    Assertions.assertTrue(e.getCause() instanceof RejectedExecutionException);
+    held.close();
+    normal.get(1, TimeUnit.SECONDS).close();
+  }
+  
+  private static RequestScheduler.Permit acquire(RequestScheduler scheduler,
+      Priority.Level level, Deadline deadline) {
+    try {
+      return scheduler.acquire(level, deadline);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+  
+  private static void awaitQueued(RequestScheduler scheduler, int queued) throws Exception {
+    long end = System.currentTimeMillis() + 1000;
+    while (scheduler.getQueued() != queued) {
+      if (System.currentTimeMillis() > end) {
+        Assertions.fail("expected " + queued + " queued but was " + scheduler.getQueued());
+      }
+      Thread.sleep(5);
+    }
+  }
+  
+  interface BaseApi {
+    
+    @GetMapping("/get")
+    String get();
+  }
+  
+  @HttpClient
+  @Priority(Priority.Level.LOW)
+  @RequestMapping("http://mock")
+  interface LowApi extends BaseApi {
+  
+  }
+}